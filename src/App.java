@@ -2,8 +2,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
 
 public class App extends JFrame {
 
@@ -12,6 +10,11 @@ public class App extends JFrame {
     private static final String FLOODGATE_URL = "https://download.geysermc.org/v2/projects/floodgate/versions/latest/builds/latest/downloads/spigot";
     private static final String VIAVERSION_URL = "https://hangarcdn.papermc.io/plugins/ViaVersion/ViaVersion/versions/5.1.1/PAPER/ViaVersion-5.1.1.jar";
 
+    private static final Downloader.Artifact PAPERMC = Downloader.artifact("paper", PAPERMC_URL);
+    private static final Downloader.Artifact GEYSERMC = Downloader.artifact("geyser", GEYSERMC_URL);
+    private static final Downloader.Artifact FLOODGATE = Downloader.artifact("floodgate", FLOODGATE_URL);
+    private static final Downloader.Artifact VIAVERSION = Downloader.artifact("viaversion", VIAVERSION_URL);
+
     private static final String FILENAME = "paper-1.21.1-123.jar";
     private static final String EULA_FILENAME = "eula.txt";
     private static final String SERVER_PROPERTIES_FILENAME = "server.properties";
@@ -104,9 +107,9 @@ public class App extends JFrame {
         saveItem.addActionListener(e -> saveAll());
         sendCommandItem.addActionListener(e -> sendCommand());
         modifyPropertiesItem.addActionListener(e -> openServerProperties());
-        downloadGeyserItem.addActionListener(e -> downloadPlugin(GEYSERMC_URL, "GeyserMC"));
-        downloadFloodgateItem.addActionListener(e -> downloadPlugin(FLOODGATE_URL, "Floodgate"));
-        downloadViaVersionItem.addActionListener(e -> downloadPlugin(VIAVERSION_URL, "ViaVersion"));
+        downloadGeyserItem.addActionListener(e -> downloadPlugin(GEYSERMC, "GeyserMC"));
+        downloadFloodgateItem.addActionListener(e -> downloadPlugin(FLOODGATE, "Floodgate"));
+        downloadViaVersionItem.addActionListener(e -> downloadPlugin(VIAVERSION, "ViaVersion"));
 
         // Layout
         add(panel, BorderLayout.NORTH);
@@ -133,7 +136,7 @@ public class App extends JFrame {
             try {
                 // Download the file
                 File jarFile = new File(serverDirectory, FILENAME);
-                downloadFileWithProgress(PAPERMC_URL, jarFile);
+                downloadFileWithProgress(PAPERMC, jarFile);
 
                 // Create EULA file
                 File eulaFile = new File(serverDirectory, EULA_FILENAME);
@@ -152,7 +155,7 @@ public class App extends JFrame {
         }).start();
     }
 
-    private void downloadPlugin(String pluginUrl, String pluginName) {
+    private void downloadPlugin(Downloader.Artifact plugin, String pluginName) {
         if (!checkServerDirectory()) return;
 
         File pluginsDir = new File(serverDirectory, "plugins");
@@ -165,7 +168,7 @@ public class App extends JFrame {
         new Thread(() -> {
             try {
                 File pluginFile = new File(pluginsDir, pluginName + ".jar");
-                downloadFileWithProgress(pluginUrl, pluginFile);
+                downloadFileWithProgress(plugin, pluginFile);
                 JOptionPane.showMessageDialog(this, pluginName + " downloaded successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Error downloading " + pluginName + ": " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -189,31 +192,10 @@ public class App extends JFrame {
         return true;
     }
 
-    private void downloadFileWithProgress(String fileUrl, File outputFile) throws IOException {
-        @SuppressWarnings("deprecation")
-        HttpURLConnection connection = (HttpURLConnection) new URL(fileUrl).openConnection();
-        connection.setRequestMethod("GET");
-
-        int fileSize = connection.getContentLength();
-        try (InputStream in = connection.getInputStream();
-             FileOutputStream out = new FileOutputStream(outputFile)) {
-
-            byte[] buffer = new byte[1024];
-            int bytesRead;
-            int totalBytesRead = 0;
-
-            while ((bytesRead = in.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
-                totalBytesRead += bytesRead;
-
-                int progress = (int) (((double) totalBytesRead / fileSize) * 100);
-                SwingUtilities.invokeLater(() -> progressBar.setValue(progress));
-            }
-        }
-
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to download file: HTTP " + connection.getResponseCode());
-        }
+    private void downloadFileWithProgress(Downloader.Artifact artifact, File outputFile) throws IOException {
+        String sha256 = Downloader.download(artifact, outputFile,
+                progress -> SwingUtilities.invokeLater(() -> progressBar.setValue(progress)));
+        appendToConsole("Downloaded " + outputFile.getName() + " (sha256 " + sha256 + ")");
     }
 
     private void createStartScript(File outputDir) throws IOException {
@@ -1,6 +1,4 @@
 import java.io.*;
-import java.net.URL;
-import java.net.HttpURLConnection;
 import java.util.*;
 
 public class Console {
@@ -10,11 +8,20 @@ public class Console {
     private static BufferedWriter serverInputWriter;
     private static boolean serverRunning = false;
 
+    // URL of the PaperMC JAR file
+    private static final String SERVER_URL = "https://api.papermc.io/v2/projects/paper/versions/1.21.1/builds/123/downloads/paper-1.21.1-123.jar";
+
     // URLs of the plugins to download
     private static final String PLUGIN_GEEZER_MC_URL = "https://download.geysermc.org/v2/projects/geyser/versions/latest/builds/latest/downloads/spigot";
     private static final String PLUGIN_FLOODGATE_URL = "https://download.geysermc.org/v2/projects/floodgate/versions/latest/builds/latest/downloads/spigot";
     private static final String PLUGIN_VIAVERSION_URL = "https://hangarcdn.papermc.io/plugins/ViaVersion/ViaVersion/versions/5.1.1/PAPER/ViaVersion-5.1.1.jar";
 
+    // Mirror lists and checksums can be overridden with -Dmirrors.<name> and -Dsha256.<name>
+    private static final Downloader.Artifact SERVER = Downloader.artifact("paper", SERVER_URL);
+    private static final Downloader.Artifact PLUGIN_GEEZER_MC = Downloader.artifact("geyser", PLUGIN_GEEZER_MC_URL);
+    private static final Downloader.Artifact PLUGIN_FLOODGATE = Downloader.artifact("floodgate", PLUGIN_FLOODGATE_URL);
+    private static final Downloader.Artifact PLUGIN_VIAVERSION = Downloader.artifact("viaversion", PLUGIN_VIAVERSION_URL);
+
     public static void main(String[] args) {
         if (args.length == 0) {
             System.out.println("Usage: ./<program>.jar <command> <directory>");
@@ -49,37 +56,12 @@ public class Console {
     private static void downloadServer(String dir) {
         System.out.println("Downloading server...");
 
-        // URL of the PaperMC JAR file (replace with appropriate version)
-        String serverUrl = "https://api.papermc.io/v2/projects/paper/versions/1.21.1/builds/123/downloads/paper-1.21.1-123.jar";
         String destinationFile = dir + "/paper-1.21.1-123.jar";
 
         try {
-            // Open connection to the URL
-            @SuppressWarnings("deprecation")
-            HttpURLConnection connection = (HttpURLConnection) new URL(serverUrl).openConnection();
-            connection.setRequestMethod("GET");
-
-            // Get the response code and check for success
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                // Open input stream to read the file
-                InputStream inputStream = connection.getInputStream();
-                FileOutputStream fileOutputStream = new FileOutputStream(destinationFile);
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-
-                // Read the file and write it to the destination
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    fileOutputStream.write(buffer, 0, bytesRead);
-                }
-
-                inputStream.close();
-                fileOutputStream.close();
-
-                System.out.println("Server JAR downloaded to: " + destinationFile);
-            } else {
-                System.out.println("Download failed. HTTP response code: " + responseCode);
-            }
+            String sha256 = Downloader.download(SERVER, new File(destinationFile), null);
+            System.out.println("Server JAR downloaded to: " + destinationFile);
+            System.out.println("SHA-256: " + sha256);
         } catch (IOException e) {
             e.printStackTrace();
             System.out.println("Error downloading server: " + e.getMessage());
@@ -241,20 +223,20 @@ public class Console {
 
             System.out.print("Enter your choice: ");
             int choice = scanner.nextInt();
-            String pluginUrl = "";
+            Downloader.Artifact plugin;
             String pluginName = "";
 
             switch (choice) {
                 case 1:
-                    pluginUrl = PLUGIN_GEEZER_MC_URL;
+                    plugin = PLUGIN_GEEZER_MC;
                     pluginName = "geyser.jar";
                     break;
                 case 2:
-                    pluginUrl = PLUGIN_FLOODGATE_URL;
+                    plugin = PLUGIN_FLOODGATE;
                     pluginName = "floodgate.jar";
                     break;
                 case 3:
-                    pluginUrl = PLUGIN_VIAVERSION_URL;
+                    plugin = PLUGIN_VIAVERSION;
                     pluginName = "viaversion.jar";
                     break;
                 default:
@@ -263,27 +245,9 @@ public class Console {
             }
 
             try {
-                @SuppressWarnings("deprecation")
-                HttpURLConnection connection = (HttpURLConnection) new URL(pluginUrl).openConnection();
-                connection.setRequestMethod("GET");
-                int responseCode = connection.getResponseCode();
-
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    InputStream inputStream = connection.getInputStream();
-                    FileOutputStream fileOutputStream = new FileOutputStream(new File(dir, "plugins/" + pluginName));
-
-                    byte[] buffer = new byte[4096];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        fileOutputStream.write(buffer, 0, bytesRead);
-                    }
-
-                    inputStream.close();
-                    fileOutputStream.close();
-                    System.out.println("Plugin downloaded to: " + dir + "/" + "plugins" + "/" + pluginName);
-                } else {
-                    System.out.println("Failed to download plugin. HTTP response code: " + responseCode);
-                }
+                String sha256 = Downloader.download(plugin, new File(dir, "plugins/" + pluginName), null);
+                System.out.println("Plugin downloaded to: " + dir + "/" + "plugins" + "/" + pluginName);
+                System.out.println("SHA-256: " + sha256);
             } catch (IOException e) {
                 e.printStackTrace();
                 System.out.println("Error downloading plugin: " + e.getMessage());
@@ -0,0 +1,391 @@
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Downloads artifacts from a list of mirrors.
+ *
+ * The first mirror is requested straight away. If it has not answered within the
+ * hedge delay (the 95th percentile of response times previously seen from its host,
+ * never more than -Ddownload.hedgeDelayMs), the next mirror is requested as well and
+ * whichever answers first is used. Hedging only covers the time until the response
+ * headers arrive; while the body is read, a mirror that stays below
+ * -Ddownload.minBytesPerSec is dropped and the next mirror is tried instead. Mirrors
+ * that fail, time out or serve bytes that do not match the artifact's checksum are skipped.
+ *
+ * Mirrors and checksums can be overridden with system properties, e.g.
+ * -Dmirrors.paper=https://a/paper.jar,https://b/paper.jar -Dsha256.paper=abc...
+ * A checksum is required when more than one mirror is configured, so every mirror
+ * has to serve the same bytes. Response times are only recorded for artifacts with
+ * more than one mirror, and are kept in -Ddownload.latencyFile
+ * (~/.papermc-setup-latency.properties by default).
+ */
+public class Downloader {
+
+    private static final int CONNECT_TIMEOUT_MS = Integer.getInteger("download.connectTimeoutMs", 10000);
+    private static final int READ_TIMEOUT_MS = Integer.getInteger("download.readTimeoutMs", 30000);
+
+    // Slowest a mirror may read the body before the next one is tried, checked every window
+    private static final long MIN_BYTES_PER_SEC = Long.getLong("download.minBytesPerSec", 16 * 1024L);
+    private static final long THROUGHPUT_WINDOW_MS = 30000;
+
+    // Used for a host until enough of its response times have been recorded, and the upper
+    // bound of the percentile so a few slow or timed out requests cannot switch hedging off
+    private static final long DEFAULT_HEDGE_DELAY_MS = Long.getLong("download.hedgeDelayMs", 2000L);
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final int MAX_LATENCY_SAMPLES = 32;
+
+    // Response times per host are kept between runs, since each run only downloads a few files
+    private static final File LATENCY_FILE = new File(System.getProperty("download.latencyFile",
+            new File(System.getProperty("user.home"), ".papermc-setup-latency.properties").getPath()));
+    private static Map<String, Deque<Long>> latencySamples;
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "download-mirror");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static class Artifact {
+        private final String name;
+        private final List<String> mirrors;
+        private final String sha256;
+
+        private Artifact(String name, List<String> mirrors, String sha256) {
+            this.name = name;
+            this.mirrors = mirrors;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * Creates an artifact whose mirrors come from the "mirrors.<key>" system property
+     * (comma separated) or the given defaults, and whose expected SHA-256 comes from
+     * the "sha256.<key>" system property. Without a checksum the bytes are not verified.
+     */
+    public static Artifact artifact(String key, String... defaultMirrors) {
+        List<String> mirrors = new ArrayList<>();
+        String configured = System.getProperty("mirrors." + key);
+        if (configured != null && !configured.trim().isEmpty()) {
+            for (String mirror : configured.split(",")) {
+                if (!mirror.trim().isEmpty()) {
+                    mirrors.add(mirror.trim());
+                }
+            }
+        } else {
+            mirrors.addAll(Arrays.asList(defaultMirrors));
+        }
+
+        String sha256 = System.getProperty("sha256." + key);
+        if (sha256 != null && !sha256.trim().isEmpty()) {
+            sha256 = sha256.trim().toLowerCase();
+        } else {
+            sha256 = null;
+        }
+        return new Artifact(key, Collections.unmodifiableList(mirrors), sha256);
+    }
+
+    /**
+     * Downloads the artifact to the output file and returns the SHA-256 of the bytes written.
+     * Progress is reported as a percentage when the mirror sends a content length.
+     */
+    public static String download(Artifact artifact, File outputFile, IntConsumer progress) throws IOException {
+        if (artifact.mirrors.size() > 1 && artifact.sha256 == null) {
+            throw new IOException("Set -Dsha256." + artifact.name + " to download " + artifact.name + " from more than one mirror");
+        }
+
+        // A single mirror can never be hedged, so its response times are not worth keeping
+        boolean hedged = artifact.mirrors.size() > 1;
+        List<String> remaining = new ArrayList<>(artifact.mirrors);
+        IOException lastError = new IOException("No mirrors configured for " + artifact.name);
+
+        try {
+            while (!remaining.isEmpty()) {
+                Attempt winner;
+                try {
+                    winner = connectFastest(remaining, hedged);
+                } catch (IOException ex) {
+                    lastError = ex;
+                    break;
+                }
+
+                try {
+                    return readBody(artifact, winner, outputFile, progress);
+                } catch (IOException ex) {
+                    lastError = new IOException(winner.mirror + ": " + ex.getMessage(), ex);
+                    remaining.remove(winner.mirror);
+                } finally {
+                    winner.connection.disconnect();
+                }
+            }
+        } finally {
+            if (hedged) {
+                saveLatencies();
+            }
+        }
+
+        throw lastError;
+    }
+
+    private static class Attempt {
+        private final String mirror;
+        private final String host;
+        private final long startNanos = System.nanoTime();
+        private volatile HttpURLConnection connection;
+        private volatile boolean abandoned;
+        private boolean recorded;
+
+        private Attempt(String mirror, boolean timed) {
+            this.mirror = mirror;
+            this.host = hostOf(mirror);
+            this.recorded = !timed;
+        }
+
+        // Records the time taken so far, once, whether the request answered or was abandoned
+        private synchronized void recordLatency() {
+            if (!recorded) {
+                recorded = true;
+                addLatencySample(host, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+        }
+    }
+
+    /**
+     * Requests the mirrors in order, hedging with the next one whenever the requests in
+     * flight are slower than the hedge delay, and returns the first successful response.
+     * Mirrors that fail to respond are removed from the list.
+     */
+    private static Attempt connectFastest(List<String> mirrors, boolean timed) throws IOException {
+        CompletionService<Attempt> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<Attempt>, Attempt> inFlight = new HashMap<>();
+        Iterator<String> pending = new ArrayList<>(mirrors).iterator();
+        IOException lastError = null;
+
+        try {
+            Attempt latest = submit(completionService, inFlight, pending.next(), timed);
+
+            while (!inFlight.isEmpty()) {
+                Future<Attempt> done;
+                if (pending.hasNext()) {
+                    done = completionService.poll(hedgeDelayMs(latest.host), TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        latest = submit(completionService, inFlight, pending.next(), timed);
+                        continue;
+                    }
+                } else {
+                    done = completionService.take();
+                }
+
+                Attempt attempt = inFlight.remove(done);
+                try {
+                    return done.get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    lastError = new IOException(attempt.mirror + ": " + cause.getMessage(), cause);
+                    mirrors.remove(attempt.mirror);
+                    if (pending.hasNext()) {
+                        latest = submit(completionService, inFlight, pending.next(), timed);
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", ex);
+        } finally {
+            // Abandon the slower requests, recording how long they took so far as a lower bound
+            for (Map.Entry<Future<Attempt>, Attempt> entry : inFlight.entrySet()) {
+                entry.getValue().recordLatency();
+                entry.getValue().abandoned = true;
+                entry.getKey().cancel(true);
+                HttpURLConnection connection = entry.getValue().connection;
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        }
+
+        throw lastError;
+    }
+
+    private static Attempt submit(CompletionService<Attempt> completionService, Map<Future<Attempt>, Attempt> inFlight, String mirror, boolean timed) {
+        Attempt attempt = new Attempt(mirror, timed);
+        inFlight.put(completionService.submit(() -> connect(attempt)), attempt);
+        return attempt;
+    }
+
+    private static Attempt connect(Attempt attempt) throws IOException {
+        @SuppressWarnings("deprecation")
+        HttpURLConnection connection = (HttpURLConnection) new URL(attempt.mirror).openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        attempt.connection = connection;
+
+        int responseCode;
+        try {
+            responseCode = connection.getResponseCode();
+        } catch (SocketTimeoutException ex) {
+            attempt.recordLatency();
+            throw ex;
+        }
+        attempt.recordLatency();
+
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            connection.disconnect();
+            throw new IOException("HTTP " + responseCode);
+        }
+        if (attempt.abandoned) {
+            // Another mirror answered first
+            connection.disconnect();
+            throw new IOException("Abandoned");
+        }
+
+        return attempt;
+    }
+
+    private static String readBody(Artifact artifact, Attempt attempt, File outputFile, IntConsumer progress) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException("SHA-256 is not available", ex);
+        }
+
+        File partFile = new File(outputFile.getPath() + ".part");
+        long fileSize = attempt.connection.getContentLengthLong();
+
+        try (InputStream in = attempt.connection.getInputStream();
+             FileOutputStream out = new FileOutputStream(partFile)) {
+
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            long totalBytesRead = 0;
+            long windowStart = System.nanoTime();
+            long windowBytesRead = 0;
+
+            while ((bytesRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+                digest.update(buffer, 0, bytesRead);
+                totalBytesRead += bytesRead;
+                windowBytesRead += bytesRead;
+
+                long windowMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - windowStart);
+                if (windowMs >= THROUGHPUT_WINDOW_MS) {
+                    long bytesPerSec = windowBytesRead * 1000 / windowMs;
+                    if (bytesPerSec < MIN_BYTES_PER_SEC) {
+                        throw new IOException("Too slow, " + bytesPerSec + " bytes/s");
+                    }
+                    windowStart = System.nanoTime();
+                    windowBytesRead = 0;
+                }
+
+                if (fileSize > 0 && progress != null) {
+                    progress.accept((int) (totalBytesRead * 100 / fileSize));
+                }
+            }
+        } catch (IOException ex) {
+            partFile.delete();
+            throw ex;
+        }
+
+        String sha256 = toHex(digest.digest());
+        if (artifact.sha256 != null && !artifact.sha256.equals(sha256)) {
+            partFile.delete();
+            throw new IOException("Checksum mismatch, expected " + artifact.sha256 + " but got " + sha256);
+        }
+
+        Files.move(partFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return sha256;
+    }
+
+    private static String hostOf(String mirror) {
+        try {
+            String host = URI.create(mirror).getHost();
+            return host != null ? host : mirror;
+        } catch (IllegalArgumentException ex) {
+            return mirror;
+        }
+    }
+
+    private static synchronized void addLatencySample(String host, long millis) {
+        Deque<Long> samples = loadLatencies().computeIfAbsent(host, key -> new ArrayDeque<>());
+        samples.addLast(millis);
+        while (samples.size() > MAX_LATENCY_SAMPLES) {
+            samples.removeFirst();
+        }
+    }
+
+    private static synchronized long hedgeDelayMs(String host) {
+        Deque<Long> samples = loadLatencies().get(host);
+        if (samples == null || samples.size() < MIN_LATENCY_SAMPLES) {
+            return DEFAULT_HEDGE_DELAY_MS;
+        }
+
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(HEDGE_PERCENTILE * sorted.size()) - 1;
+        return Math.max(1, Math.min(DEFAULT_HEDGE_DELAY_MS, sorted.get(index)));
+    }
+
+    private static synchronized Map<String, Deque<Long>> loadLatencies() {
+        if (latencySamples == null) {
+            latencySamples = new HashMap<>();
+
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(LATENCY_FILE)) {
+                properties.load(in);
+            } catch (IOException ex) {
+                // Missing or unreadable, start with the default hedge delay
+            }
+
+            for (String host : properties.stringPropertyNames()) {
+                Deque<Long> samples = new ArrayDeque<>();
+                for (String sample : properties.getProperty(host).split(",")) {
+                    try {
+                        samples.addLast(Long.parseLong(sample.trim()));
+                    } catch (NumberFormatException ex) {
+                        // Skip corrupt entries
+                    }
+                }
+                latencySamples.put(host, samples);
+            }
+        }
+        return latencySamples;
+    }
+
+    private static synchronized void saveLatencies() {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Deque<Long>> entry : loadLatencies().entrySet()) {
+            StringBuilder value = new StringBuilder();
+            for (Long sample : entry.getValue()) {
+                if (value.length() > 0) value.append(',');
+                value.append(sample);
+            }
+            properties.setProperty(entry.getKey(), value.toString());
+        }
+
+        try (OutputStream out = new FileOutputStream(LATENCY_FILE)) {
+            properties.store(out, "Response times in ms per download host");
+        } catch (IOException ex) {
+            // Only used to tune the hedge delay, so a failed write is not fatal
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}